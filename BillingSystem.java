@@ -1,3 +1,4 @@
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -7,11 +8,38 @@ import java.util.Map;
 public class BillingSystem {
     private Map<String, Product> productCatalog;
     private Cart cart;
+    private PromotionScheduler promotionScheduler;
+    private CouponService couponService;
+    private SalesAnalytics salesAnalytics;
+    private static final int DEFAULT_EXPECTED_COUPON_CODES = 100000;
+    private static final double DEFAULT_COUPON_FALSE_POSITIVE_RATE = 0.01;
     
     // Constructor
     public BillingSystem() {
+        this(new PromotionScheduler(),
+                new CouponService(DEFAULT_EXPECTED_COUPON_CODES, DEFAULT_COUPON_FALSE_POSITIVE_RATE),
+                new SalesAnalytics());
+    }
+    
+    // Constructor with a custom promotion scheduler (e.g. one driven by a fixed clock)
+    public BillingSystem(PromotionScheduler promotionScheduler) {
+        this(promotionScheduler,
+                new CouponService(DEFAULT_EXPECTED_COUPON_CODES, DEFAULT_COUPON_FALSE_POSITIVE_RATE));
+    }
+    
+    // Constructor with a custom promotion scheduler and coupon service
+    public BillingSystem(PromotionScheduler promotionScheduler, CouponService couponService) {
+        this(promotionScheduler, couponService, new SalesAnalytics());
+    }
+    
+    // Constructor with custom components (e.g. a scheduler and analytics driven by a fixed clock)
+    public BillingSystem(PromotionScheduler promotionScheduler, CouponService couponService,
+                         SalesAnalytics salesAnalytics) {
         this.productCatalog = new HashMap<>();
         this.cart = new Cart();
+        this.promotionScheduler = promotionScheduler;
+        this.couponService = couponService;
+        this.salesAnalytics = salesAnalytics;
     }
     
     /**
@@ -68,6 +96,40 @@ public class BillingSystem {
         return cart.generateReceipt();
     }
     
+    /**
+     * Complete the checkout: generate the receipt, record the sale and empty the cart.
+     * Returns null if the cart is empty.
+     */
+    public String checkout(String customerId, Cart.SortCriteria sortBy) {
+        if (cart.isEmpty()) {
+            return null;
+        }
+        
+        // Price once, so the receipt and the recorded sale use the same figures
+        CartPricing pricing = cart.price();
+        String receipt = cart.generateReceipt(pricing, sortBy);
+        salesAnalytics.record(customerId, pricing);
+        
+        // The coupon has been paid with, so it stays redeemed
+        cart.consumeCoupon();
+        cart.clear();
+        return receipt;
+    }
+    
+    /**
+     * Get the sales analytics
+     */
+    public SalesAnalytics getSalesAnalytics() {
+        return salesAnalytics;
+    }
+    
+    /**
+     * Turn the pricing trace on receipts on or off
+     */
+    public void setExplainMode(boolean explainMode) {
+        cart.setExplainMode(explainMode);
+    }
+    
     /**
      * Get the shopping cart
      */
@@ -76,9 +138,75 @@ public class BillingSystem {
     }
     
     /**
-     * Clear the cart
+     * Schedule a time-windowed promotion for a catalog product
+     */
+    public boolean schedulePromotion(Promotion promotion) {
+        if (promotion == null || promotion.getProduct() == null
+                || getProduct(promotion.getProduct().getId()) != promotion.getProduct()) {
+            return false;
+        }
+        return promotionScheduler.schedule(promotion);
+    }
+    
+    /**
+     * Cancel a scheduled or running promotion
+     */
+    public boolean cancelPromotion(String promotionId) {
+        return promotionScheduler.cancel(promotionId);
+    }
+    
+    /**
+     * Activate and expire promotions that are due, returning how many changed state.
+     * Call this from the same thread that schedules and cancels promotions.
+     */
+    public int advancePromotions() {
+        return promotionScheduler.advance();
+    }
+    
+    /**
+     * Get the promotion scheduler
+     */
+    public PromotionScheduler getPromotionScheduler() {
+        return promotionScheduler;
+    }
+    
+    /**
+     * Redeem a coupon code and apply it to the cart (one coupon per cart)
+     */
+    public boolean applyCoupon(String code) {
+        if (cart.getCouponCode() != null) {
+            return false;
+        }
+        
+        CouponBatch batch = couponService.redeem(code);
+        if (batch == null) {
+            return false;
+        }
+        
+        cart.applyCoupon(code, batch);
+        return true;
+    }
+    
+    /**
+     * Remove the coupon from the cart so its code can be used again
+     */
+    public boolean removeCoupon() {
+        String code = cart.removeCoupon();
+        return code != null && couponService.release(code);
+    }
+    
+    /**
+     * Get the coupon service
+     */
+    public CouponService getCouponService() {
+        return couponService;
+    }
+    
+    /**
+     * Clear the cart, releasing its coupon so the code can be used again
      */
     public void clearCart() {
+        removeCoupon();
         cart.clear();
     }
     
@@ -103,4 +231,15 @@ public class BillingSystem {
         addProductToCatalog(new Product("P004", "Soap", 2.50));
         addProductToCatalog(new Product("P005", "Deodorant", 4.50));
     }
+    
+    /**
+     * Initialize the system with some sample coupon codes
+     */
+    public void initializeWithSampleCoupons() {
+        CouponBatch welcome = new CouponBatch("B001", "Welcome", CouponBatch.CouponType.PERCENTAGE, 5.0);
+        couponService.loadBatch(welcome, Arrays.asList("WELCOME-0001", "WELCOME-0002", "WELCOME-0003"));
+        
+        CouponBatch fiveOff = new CouponBatch("B002", "Five Off", CouponBatch.CouponType.FIXED_AMOUNT, 5.0);
+        couponService.loadBatch(fiveOff, Arrays.asList("SAVE5-0001", "SAVE5-0002", "SAVE5-0003"));
+    }
 }
\ No newline at end of file
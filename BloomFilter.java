@@ -0,0 +1,71 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * BloomFilter class used to reject values that were never added, without
+ * touching the backing store.
+ *
+ * Works on precomputed 64-bit hashes and derives its bit positions with
+ * double hashing. Bits are set with CAS, so adds and lookups may run
+ * concurrently from different threads.
+ */
+public class BloomFilter {
+    private final AtomicLongArray bits;
+    private final long numBits;
+    private final int numHashes;
+
+    // Constructor sized for the expected number of values and false positive rate
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0 || falsePositiveRate <= 0.0 || falsePositiveRate >= 1.0) {
+            throw new IllegalArgumentException("Invalid Bloom filter configuration");
+        }
+
+        double ln2 = Math.log(2);
+        long m = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+        m = Math.max(64, (m + 63) / 64 * 64);
+
+        this.bits = new AtomicLongArray((int) (m / 64));
+        this.numBits = m;
+        this.numHashes = Math.max(1, (int) Math.round((double) m / expectedInsertions * ln2));
+    }
+
+    /**
+     * Add a hashed value to the filter
+     */
+    public void add(long hash) {
+        long h1 = (int) hash;
+        long h2 = (int) (hash >>> 32);
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, numBits);
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long word = bits.get(index);
+            while ((word & mask) == 0 && !bits.compareAndSet(index, word, word | mask)) {
+                word = bits.get(index);
+            }
+        }
+    }
+
+    /**
+     * Check whether a hashed value may have been added. A false result is definite.
+     */
+    public boolean mightContain(long hash) {
+        long h1 = (int) hash;
+        long h2 = (int) (hash >>> 32);
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, numBits);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Getters
+    public long getNumBits() {
+        return numBits;
+    }
+
+    public int getNumHashes() {
+        return numHashes;
+    }
+}
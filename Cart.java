@@ -1,23 +1,79 @@
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Stack;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+import java.util.function.ToDoubleFunction;
 
 /**
  * Cart class that manages the shopping cart operations
  */
 public class Cart {
-    private Map<String, CartItem> items;
+    private List<CartItem> lines;
+    private Map<String, Integer> lineIndexes;
     private Stack<Action> undoStack;
+    private String couponCode;
+    private CouponBatch coupon;
     private static final double CART_DISCOUNT_THRESHOLD = 100.0;
     private static final double CART_DISCOUNT_PERCENTAGE = 10.0;
+    // Parallel pricing stays off until a multi-core measurement shows it pays off
+    private static final int DEFAULT_PARALLEL_THRESHOLD = Integer.MAX_VALUE;
+    private static final int PARALLEL_LEAF_SIZE = 2048;
+    private static final int PRICING_CHUNK_SIZE = 1024;
+    private int parallelThreshold;
+    private ForkJoinPool pricingPool;
+    private boolean explainMode;
     
     // Constructor
     public Cart() {
-        this.items = new HashMap<>();
+        this.lines = new ArrayList<>();
+        this.lineIndexes = new HashMap<>();
         this.undoStack = new Stack<>();
+        this.parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+        this.pricingPool = ForkJoinPool.commonPool();
+    }
+    
+    /**
+     * Set the number of lines at which pricing and receipts switch to the fork-join pool.
+     * Parallel pricing is off by default.
+     */
+    public void setParallelThreshold(int parallelThreshold) {
+        if (parallelThreshold > 0) {
+            this.parallelThreshold = parallelThreshold;
+        }
+    }
+    
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+    
+    /**
+     * Set the fork-join pool used to price large carts
+     */
+    public void setPricingPool(ForkJoinPool pricingPool) {
+        if (pricingPool != null) {
+            this.pricingPool = pricingPool;
+        }
+    }
+    
+    /**
+     * Turn the pricing trace on receipts on or off. Pricing itself never
+     * records anything; the trace is built from the receipt's own pricing.
+     */
+    public void setExplainMode(boolean explainMode) {
+        this.explainMode = explainMode;
+    }
+    
+    /**
+     * Check whether receipts include the pricing trace
+     */
+    public boolean isExplainMode() {
+        return explainMode;
     }
     
     /**
@@ -34,11 +90,12 @@ public class Cart {
         undoStack.push(new Action(Action.ActionType.ADD, productId, quantity));
         
         // Check if product already exists in cart
-        if (items.containsKey(productId)) {
-            CartItem item = items.get(productId);
+        CartItem item = findLine(productId);
+        if (item != null) {
             item.setQuantity(item.getQuantity() + quantity);
         } else {
-            items.put(productId, new CartItem(product, quantity));
+            lineIndexes.put(productId, lines.size());
+            lines.add(new CartItem(product, quantity));
         }
     }
     
@@ -46,18 +103,17 @@ public class Cart {
      * Remove a product from the cart
      */
     public void removeProduct(String productId, int quantity) {
-        if (productId == null || quantity <= 0 || !items.containsKey(productId)) {
+        CartItem item = findLine(productId);
+        if (item == null || quantity <= 0) {
             return;
         }
         
-        CartItem item = items.get(productId);
-        
         // Record action for undo
         undoStack.push(new Action(Action.ActionType.REMOVE, productId, Math.min(quantity, item.getQuantity())));
         
         // Update quantity or remove item if quantity becomes zero
         if (item.getQuantity() <= quantity) {
-            items.remove(productId);
+            removeLine(productId);
         } else {
             item.setQuantity(item.getQuantity() - quantity);
         }
@@ -77,18 +133,18 @@ public class Cart {
         // We need to do the opposite of the last action
         if (lastAction.getActionType() == Action.ActionType.ADD) {
             // Undo an add - we need to remove
-            if (items.containsKey(productId)) {
-                CartItem item = items.get(productId);
+            CartItem item = findLine(productId);
+            if (item != null) {
                 if (item.getQuantity() <= lastAction.getQuantity()) {
-                    items.remove(productId);
+                    removeLine(productId);
                 } else {
                     item.setQuantity(item.getQuantity() - lastAction.getQuantity());
                 }
             }
         } else {
             // Undo a remove - we need to add back
-            if (items.containsKey(productId)) {
-                CartItem item = items.get(productId);
+            CartItem item = findLine(productId);
+            if (item != null) {
                 item.setQuantity(item.getQuantity() + lastAction.getQuantity());
             } else {
                 // If the product is no longer in the cart, we can't add it back because
@@ -101,34 +157,52 @@ public class Cart {
         return true;
     }
     
+    /**
+     * Find the line for a product, or null if it is not in the cart
+     */
+    private CartItem findLine(String productId) {
+        Integer index = productId == null ? null : lineIndexes.get(productId);
+        return index == null ? null : lines.get(index);
+    }
+    
+    /**
+     * Remove the line for a product by moving the last line into its place
+     */
+    private void removeLine(String productId) {
+        int index = lineIndexes.remove(productId);
+        CartItem last = lines.remove(lines.size() - 1);
+        if (index < lines.size()) {
+            lines.set(index, last);
+            lineIndexes.put(last.getProduct().getId(), index);
+        }
+    }
+    
     /**
      * Calculate the total price of items in the cart before any discounts
      */
     public double getSubtotal() {
-        double subtotal = 0.0;
-        for (CartItem item : items.values()) {
-            subtotal += item.getSubtotal();
-        }
-        return subtotal;
+        return sumLines(lines, CartItem::getSubtotal, null)[0];
     }
     
     /**
      * Calculate the total discount amount for all items in the cart
      */
     public double getItemDiscountsTotal() {
-        double discountTotal = 0.0;
-        for (CartItem item : items.values()) {
-            discountTotal += item.getDiscountAmount();
-        }
-        return discountTotal;
+        return sumLines(lines, CartItem::getDiscountAmount, null)[0];
     }
     
     /**
      * Calculate the cart-level discount (e.g., 10% off if total exceeds $100)
      */
     public double getCartDiscount() {
-        double subtotalAfterItemDiscounts = getSubtotal() - getItemDiscountsTotal();
-        
+        double[] totals = priceLines();
+        return cartDiscountFor(totals[0] - totals[1]);
+    }
+    
+    /**
+     * Cart-level discount for a given subtotal after item discounts
+     */
+    private double cartDiscountFor(double subtotalAfterItemDiscounts) {
         // Apply cart-level discount if subtotal exceeds threshold
         if (subtotalAfterItemDiscounts >= CART_DISCOUNT_THRESHOLD) {
             return subtotalAfterItemDiscounts * (CART_DISCOUNT_PERCENTAGE / 100.0);
@@ -137,48 +211,247 @@ public class Cart {
         return 0.0;
     }
     
+    /**
+     * Apply a redeemed coupon to the cart
+     */
+    public void applyCoupon(String code, CouponBatch batch) {
+        if (code == null || batch == null) {
+            return;
+        }
+        this.couponCode = code;
+        this.coupon = batch;
+    }
+    
+    /**
+     * Remove the coupon from the cart, returning its code (or null if none)
+     */
+    public String removeCoupon() {
+        String code = couponCode;
+        couponCode = null;
+        coupon = null;
+        return code;
+    }
+    
+    /**
+     * Take a coupon that was paid with off the cart, returning its code (or null if none).
+     * Unlike removeCoupon, the caller keeps the code redeemed.
+     */
+    public String consumeCoupon() {
+        return removeCoupon();
+    }
+    
+    /**
+     * Get the code of the applied coupon, or null if none
+     */
+    public String getCouponCode() {
+        return couponCode;
+    }
+    
+    /**
+     * Calculate the coupon discount, applied after item and cart-level discounts
+     */
+    public double getCouponDiscount() {
+        if (coupon == null) {
+            return 0.0;
+        }
+        
+        double[] totals = priceLines();
+        double afterItemDiscounts = totals[0] - totals[1];
+        return couponDiscountFor(afterItemDiscounts - cartDiscountFor(afterItemDiscounts));
+    }
+    
+    /**
+     * Coupon discount for a given amount left after item and cart-level discounts
+     */
+    private double couponDiscountFor(double remaining) {
+        if (coupon == null) {
+            return 0.0;
+        }
+        
+        switch (coupon.getCouponType()) {
+            case PERCENTAGE:
+                return remaining * (coupon.getValue() / 100.0);
+            case FIXED_AMOUNT:
+                // Never discount more than what is left to pay
+                return Math.max(0.0, Math.min(coupon.getValue(), remaining));
+            default:
+                return 0.0;
+        }
+    }
+    
     /**
      * Calculate the final total after all discounts
      */
     public double getTotal() {
-        return getSubtotal() - getItemDiscountsTotal() - getCartDiscount();
+        double[] totals = priceLines();
+        double afterItemDiscounts = totals[0] - totals[1];
+        double cartDiscount = cartDiscountFor(afterItemDiscounts);
+        return afterItemDiscounts - cartDiscount - couponDiscountFor(afterItemDiscounts - cartDiscount);
+    }
+    
+    /**
+     * Price the cart once. Each line reads its price and discount a single time,
+     * and the totals are summed from those lines in the same order as getTotal.
+     */
+    public CartPricing price() {
+        PricedLine[] priced = new PricedLine[lines.size()];
+        if (isLarge(priced.length)) {
+            forEachLineInParallel(priced.length, i -> priced[i] = lines.get(i).price());
+        } else {
+            for (int i = 0; i < priced.length; i++) {
+                priced[i] = lines.get(i).price();
+            }
+        }
+        
+        List<PricedLine> pricedLines = Arrays.asList(priced);
+        double[] totals = sumLines(pricedLines, PricedLine::getSubtotal, PricedLine::getDiscountAmount);
+        double afterItemDiscounts = totals[0] - totals[1];
+        double cartDiscount = cartDiscountFor(afterItemDiscounts);
+        return new CartPricing(pricedLines, totals[0], totals[1], cartDiscount,
+                couponCode, coupon, couponDiscountFor(afterItemDiscounts - cartDiscount));
+    }
+    
+    /**
+     * Price every line once, returning {subtotal, item discounts total}
+     */
+    private double[] priceLines() {
+        return sumLines(lines, CartItem::getSubtotal, CartItem::getDiscountAmount);
+    }
+    
+    /**
+     * Sum one figure, or two when second is not null, over the lines, returning
+     * {first total, second total}.
+     *
+     * Lines are split into fixed chunks of PRICING_CHUNK_SIZE. Each chunk is
+     * summed in line order and the chunk sums are added in chunk order. Large
+     * carts sum their chunks on the fork-join pool, but the chunks and the order
+     * they are added in are the same, so both paths give bit-identical totals.
+     */
+    private <T> double[] sumLines(List<T> lines, ToDoubleFunction<T> first, ToDoubleFunction<T> second) {
+        int lineCount = lines.size();
+        int chunks = (lineCount + PRICING_CHUNK_SIZE - 1) / PRICING_CHUNK_SIZE;
+        double firstTotal = 0.0;
+        double secondTotal = 0.0;
+        
+        if (isLarge(lineCount)) {
+            double[] firstSums = new double[chunks];
+            double[] secondSums = new double[chunks];
+            pricingPool.invoke(new LineRangeTask(0, chunks, 1, chunk -> {
+                firstSums[chunk] = sumChunk(lines, chunk, first);
+                if (second != null) {
+                    secondSums[chunk] = sumChunk(lines, chunk, second);
+                }
+            }));
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                firstTotal += firstSums[chunk];
+                secondTotal += secondSums[chunk];
+            }
+        } else {
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                firstTotal += sumChunk(lines, chunk, first);
+                if (second != null) {
+                    secondTotal += sumChunk(lines, chunk, second);
+                }
+            }
+        }
+        
+        return new double[] {firstTotal, secondTotal};
+    }
+    
+    /**
+     * Sum a figure over the lines of one chunk, in line order
+     */
+    private static <T> double sumChunk(List<T> lines, int chunk, ToDoubleFunction<T> figure) {
+        int from = chunk * PRICING_CHUNK_SIZE;
+        int to = Math.min(lines.size(), from + PRICING_CHUNK_SIZE);
+        double sum = 0.0;
+        for (int i = from; i < to; i++) {
+            sum += figure.applyAsDouble(lines.get(i));
+        }
+        return sum;
+    }
+    
+    /**
+     * Check whether a number of lines is large enough to be processed in parallel
+     */
+    private boolean isLarge(int lineCount) {
+        return lineCount >= parallelThreshold;
+    }
+    
+    /**
+     * Run the action for every line index on the pricing pool
+     */
+    private void forEachLineInParallel(int lineCount, IntConsumer action) {
+        pricingPool.invoke(new LineRangeTask(0, lineCount, PARALLEL_LEAF_SIZE, action));
     }
     
     /**
      * Get all items in the cart
      */
     public List<CartItem> getItems() {
-        return new ArrayList<>(items.values());
+        return new ArrayList<>(lines);
     }
     
     /**
      * Sort cart items based on the specified criteria
      */
     public List<CartItem> getSortedItems(SortCriteria criteria) {
-        List<CartItem> sortedItems = getItems();
+        List<CartItem> sortedItems = new ArrayList<>();
+        for (PricedLine line : sortLines(price().getLines(), criteria)) {
+            sortedItems.add(line.getItem());
+        }
+        return sortedItems;
+    }
+    
+    /**
+     * Sort priced lines based on the specified criteria. Prices come from the
+     * lines, so a promotion changing meanwhile cannot reorder them mid-sort.
+     */
+    private List<PricedLine> sortLines(List<PricedLine> lines, SortCriteria criteria) {
+        List<PricedLine> sortedLines = new ArrayList<>(lines);
+        Comparator<PricedLine> comparator;
         
         switch (criteria) {
             case NAME:
-                sortedItems.sort(Comparator.comparing(item -> item.getProduct().getName()));
+                comparator = Comparator.comparing(line -> line.getProduct().getName());
                 break;
                 
             case QUANTITY:
-                sortedItems.sort(Comparator.comparing(CartItem::getQuantity).reversed());
+                comparator = Comparator.comparing(PricedLine::getQuantity).reversed();
                 break;
                 
             case PRICE:
-                sortedItems.sort(Comparator.comparing(CartItem::getFinalPrice).reversed());
+                comparator = Comparator.comparing(PricedLine::getFinalPrice).reversed();
                 break;
+                
+            default:
+                return sortedLines;
         }
         
-        return sortedItems;
+        if (isLarge(sortedLines.size())) {
+            // Both sorts are stable, so the order is the same as the sequential one
+            PricedLine[] array = sortedLines.toArray(new PricedLine[0]);
+            Arrays.parallelSort(array, comparator);
+            return new ArrayList<>(Arrays.asList(array));
+        }
+        
+        sortedLines.sort(comparator);
+        return sortedLines;
     }
     
     /**
      * Generate a formatted receipt
      */
     public String generateReceipt(SortCriteria sortBy) {
-        List<CartItem> sortedItems = getSortedItems(sortBy);
+        return generateReceipt(price(), sortBy);
+    }
+    
+    /**
+     * Generate a formatted receipt for a cart priced with price(). Lines and
+     * totals are printed from the pricing, so nothing is priced a second time.
+     */
+    public String generateReceipt(CartPricing pricing, SortCriteria sortBy) {
+        List<PricedLine> sortedLines = sortLines(pricing.getLines(), sortBy);
         StringBuilder receipt = new StringBuilder();
         
         // Header
@@ -186,29 +459,39 @@ public class Cart {
         receipt.append(String.format("%-12s %-5s %-12s %-10s %-12s\n", "Item", "Qty", "Unit Price", "Discount", "Subtotal"));
         receipt.append("----------------------------------------------------\n");
         
-        // Line items
-        for (CartItem item : sortedItems) {
-            Product product = item.getProduct();
-            receipt.append(String.format("%-12s %-5d $%-11.2f %-10s $%-11.2f\n",
-                    truncate(product.getName(), 12),
-                    item.getQuantity(),
-                    product.getPrice(),
-                    item.getDiscountDescription(),
-                    item.getFinalPrice()));
+        // Line items (formatted on the pricing pool for large carts, appended in order)
+        if (isLarge(sortedLines.size())) {
+            String[] lines = new String[sortedLines.size()];
+            forEachLineInParallel(lines.length, i -> lines[i] = formatLine(sortedLines.get(i)));
+            for (String line : lines) {
+                receipt.append(line);
+            }
+        } else {
+            for (PricedLine line : sortedLines) {
+                receipt.append(formatLine(line));
+            }
         }
         
         // Summary
         receipt.append("\n");
-        receipt.append(String.format("Subtotal: $%.2f\n", getSubtotal()));
+        receipt.append(String.format("Subtotal: $%.2f\n", pricing.getSubtotal()));
         
-        double cartDiscount = getCartDiscount();
-        if (cartDiscount > 0) {
-            receipt.append(String.format("Cart Discount: %.0f%% (-$%.2f)\n", CART_DISCOUNT_PERCENTAGE, cartDiscount));
+        if (pricing.getCartDiscount() > 0) {
+            receipt.append(String.format("Cart Discount: %.0f%% (-$%.2f)\n", CART_DISCOUNT_PERCENTAGE, pricing.getCartDiscount()));
         }
         
-        receipt.append(String.format("TOTAL: $%.2f\n", getTotal()));
+        if (pricing.getCoupon() != null) {
+            receipt.append(String.format("Coupon %s: %s (-$%.2f)\n", pricing.getCouponCode(),
+                    pricing.getCoupon().getDescription(), pricing.getCouponDiscount()));
+        }
+        
+        receipt.append(String.format("TOTAL: $%.2f\n", pricing.getTotal()));
         receipt.append("----------------\n");
         
+        if (explainMode) {
+            receipt.append(explainPricing(pricing, sortedLines).format());
+        }
+        
         return receipt.toString();
     }
     
@@ -219,6 +502,62 @@ public class Cart {
         return generateReceipt(SortCriteria.NAME);
     }
     
+    /**
+     * Explain how the current total was reached, whether or not explain mode is on
+     */
+    public PricingTrace explainPricing() {
+        return explainPricing(price());
+    }
+    
+    /**
+     * Explain how a priced cart's total was reached
+     */
+    public PricingTrace explainPricing(CartPricing pricing) {
+        return explainPricing(pricing, sortLines(pricing.getLines(), SortCriteria.NAME));
+    }
+    
+    /**
+     * Record every line rule, the cart-level rule and the coupon rule from the
+     * pricing itself, so the trace shows the same discounts the totals used
+     */
+    private PricingTrace explainPricing(CartPricing pricing, List<PricedLine> lines) {
+        PricingTrace trace = new PricingTrace();
+        
+        for (PricedLine line : lines) {
+            line.explainDiscount(trace);
+        }
+        
+        double afterItemDiscounts = pricing.getAfterItemDiscounts();
+        trace.record(PricingTrace.Scope.CART, "CART", "THRESHOLD", pricing.getCartDiscount())
+                .input(PricingTrace.Input.AFTER_ITEM_DISCOUNTS, afterItemDiscounts)
+                .input(PricingTrace.Input.THRESHOLD, CART_DISCOUNT_THRESHOLD)
+                .input(PricingTrace.Input.RATE, CART_DISCOUNT_PERCENTAGE);
+        
+        CouponBatch pricedCoupon = pricing.getCoupon();
+        if (pricedCoupon != null) {
+            PricingTrace.Input valueInput = pricedCoupon.getCouponType() == CouponBatch.CouponType.PERCENTAGE
+                    ? PricingTrace.Input.RATE : PricingTrace.Input.VALUE;
+            trace.record(PricingTrace.Scope.COUPON, pricing.getCouponCode(), pricedCoupon.getCouponType().name(),
+                    pricing.getCouponDiscount())
+                    .input(PricingTrace.Input.REMAINING, afterItemDiscounts - pricing.getCartDiscount())
+                    .input(valueInput, pricedCoupon.getValue());
+        }
+        
+        return trace;
+    }
+    
+    /**
+     * Format one receipt line
+     */
+    private String formatLine(PricedLine line) {
+        return String.format("%-12s %-5d $%-11.2f %-10s $%-11.2f\n",
+                truncate(line.getProduct().getName(), 12),
+                line.getQuantity(),
+                line.getUnitPrice(),
+                line.getDiscountDescription(),
+                line.getFinalPrice());
+    }
+    
     /**
      * Helper method to truncate long strings
      */
@@ -242,14 +581,49 @@ public class Cart {
      * Check if the cart is empty
      */
     public boolean isEmpty() {
-        return items.isEmpty();
+        return lines.isEmpty();
     }
     
     /**
-     * Clear the cart
+     * Clear the cart. An applied coupon stays on the cart until it is removed or consumed.
      */
     public void clear() {
-        items.clear();
+        lines.clear();
+        lineIndexes.clear();
         undoStack.clear();
     }
+    
+    /**
+     * Fork-join task that splits a range of indexes (lines or chunks) until it
+     * is no larger than the leaf size, then processes it directly
+     */
+    private static class LineRangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final int from;
+        private final int to;
+        private final int leafSize;
+        private final IntConsumer action;
+        
+        LineRangeTask(int from, int to, int leafSize, IntConsumer action) {
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+            this.action = action;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from <= leafSize) {
+                for (int i = from; i < to; i++) {
+                    action.accept(i);
+                }
+                return;
+            }
+            
+            int middle = (from + to) >>> 1;
+            invokeAll(new LineRangeTask(from, middle, leafSize, action),
+                    new LineRangeTask(middle, to, leafSize, action));
+        }
+    }
 }
\ No newline at end of file
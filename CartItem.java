@@ -35,9 +35,28 @@ public class CartItem {
      * Calculate the discount amount based on product discount rules
      */
     public double getDiscountAmount() {
+        return discountAmountFor(product.getDiscount(), product.getPrice(), quantity);
+    }
+    
+    /**
+     * Price this item: read the price and the discount in effect once and derive
+     * every amount from them
+     */
+    public PricedLine price() {
+        double unitPrice = product.getPrice();
+        Product.Discount discount = product.getDiscount();
+        return new PricedLine(this, unitPrice, quantity, discount, unitPrice * quantity,
+                discountAmountFor(discount, unitPrice, quantity));
+    }
+    
+    /**
+     * Calculate the discount amount for a given discount, unit price and quantity.
+     * Live pricing, priced lines and the pricing trace all go through here.
+     */
+    static double discountAmountFor(Product.Discount discount, double unitPrice, int quantity) {
         double discountAmount = 0.0;
         
-        switch (product.getDiscountType()) {
+        switch (discount.getType()) {
             case NONE:
                 // No discount applied
                 discountAmount = 0.0;
@@ -45,18 +64,25 @@ public class CartItem {
                 
             case BOGO:
                 // Buy One Get One Free: For every 2 items, 1 is free
-                discountAmount = product.getPrice() * (quantity / 2);
+                discountAmount = unitPrice * freeUnits(quantity);
                 break;
                 
             case PERCENTAGE:
                 // Percentage discount
-                discountAmount = getSubtotal() * (product.getDiscountValue() / 100.0);
+                discountAmount = (unitPrice * quantity) * (discount.getValue() / 100.0);
                 break;
         }
         
         return discountAmount;
     }
     
+    /**
+     * Number of free units under Buy One Get One Free: for every 2 items, 1 is free
+     */
+    static int freeUnits(int quantity) {
+        return quantity / 2;
+    }
+    
     /**
      * Calculate the final price after applying discount
      */
@@ -68,16 +94,30 @@ public class CartItem {
      * Get the discount description for receipt display
      */
     public String getDiscountDescription() {
-        switch (product.getDiscountType()) {
+        return describe(product.getDiscount());
+    }
+    
+    /**
+     * Describe a discount for receipt display
+     */
+    static String describe(Product.Discount discount) {
+        switch (discount.getType()) {
             case BOGO:
                 return "BOGO";
             case PERCENTAGE:
-                return product.getDiscountValue() + "%";
+                return discount.getValue() + "%";
             default:
                 return "None";
         }
     }
     
+    /**
+     * Record the discount rule evaluated for this item, its inputs and outcome
+     */
+    public void explainDiscount(PricingTrace trace) {
+        price().explainDiscount(trace);
+    }
+    
     @Override
     public String toString() {
         return "CartItem{" +
@@ -0,0 +1,90 @@
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * CartPricing class holding a cart as it was priced at one moment.
+ *
+ * Every line is priced once, and the totals are summed from those lines, so a
+ * receipt and a recorded sale built from the same pricing always agree.
+ */
+public class CartPricing {
+    private final List<PricedLine> lines;
+    private final double subtotal;
+    private final double itemDiscountsTotal;
+    private final double cartDiscount;
+    private final String couponCode;
+    private final CouponBatch coupon;
+    private final double couponDiscount;
+
+    // Constructor
+    CartPricing(List<PricedLine> lines, double subtotal, double itemDiscountsTotal, double cartDiscount,
+                String couponCode, CouponBatch coupon, double couponDiscount) {
+        this.lines = Collections.unmodifiableList(lines);
+        this.subtotal = subtotal;
+        this.itemDiscountsTotal = itemDiscountsTotal;
+        this.cartDiscount = cartDiscount;
+        this.couponCode = couponCode;
+        this.coupon = coupon;
+        this.couponDiscount = couponDiscount;
+    }
+
+    // Getters
+    public List<PricedLine> getLines() {
+        return lines;
+    }
+
+    public double getSubtotal() {
+        return subtotal;
+    }
+
+    public double getItemDiscountsTotal() {
+        return itemDiscountsTotal;
+    }
+
+    public double getCartDiscount() {
+        return cartDiscount;
+    }
+
+    public String getCouponCode() {
+        return couponCode;
+    }
+
+    public CouponBatch getCoupon() {
+        return coupon;
+    }
+
+    public double getCouponDiscount() {
+        return couponDiscount;
+    }
+
+    /**
+     * Get the subtotal left after item discounts
+     */
+    public double getAfterItemDiscounts() {
+        return subtotal - itemDiscountsTotal;
+    }
+
+    /**
+     * Get the final total after all discounts
+     */
+    public double getTotal() {
+        return getAfterItemDiscounts() - cartDiscount - couponDiscount;
+    }
+
+    public boolean isEmpty() {
+        return lines.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "CartPricing{" +
+                "lines=" + lines.size() +
+                ", subtotal=" + subtotal +
+                ", itemDiscountsTotal=" + itemDiscountsTotal +
+                ", cartDiscount=" + cartDiscount +
+                ", couponCode='" + couponCode + '\'' +
+                ", couponDiscount=" + couponDiscount +
+                ", total=" + getTotal() +
+                '}';
+    }
+}
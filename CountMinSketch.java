@@ -0,0 +1,89 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * CountMinSketch class that estimates per-key counts in fixed memory.
+ *
+ * Estimates never undercount; they may overcount by a small fraction of the
+ * total. Counters are atomic, so updates and merges need no locking.
+ */
+public class CountMinSketch {
+    private final int depth;
+    private final int width;
+    private final AtomicLongArray counters;
+
+    // Constructor with the number of rows and the number of counters per row
+    public CountMinSketch(int depth, int width) {
+        if (depth <= 0 || width <= 0) {
+            throw new IllegalArgumentException("Invalid sketch dimensions");
+        }
+        this.depth = depth;
+        this.width = width;
+        this.counters = new AtomicLongArray(depth * width);
+    }
+
+    /**
+     * Add a count for a key, returning the key's new estimate
+     */
+    public long add(String key, long count) {
+        long hash = Hashing.hash64(key);
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counters.addAndGet(index(row, hash), count));
+        }
+        return min;
+    }
+
+    /**
+     * Estimate the total count added for a key
+     */
+    public long estimate(String key) {
+        long hash = Hashing.hash64(key);
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counters.get(index(row, hash)));
+        }
+        return min;
+    }
+
+    /**
+     * Merge another sketch with the same dimensions into this one
+     */
+    public void merge(CountMinSketch other) {
+        if (other.depth != depth || other.width != width) {
+            throw new IllegalArgumentException("Cannot merge sketches with different dimensions");
+        }
+        for (int i = 0; i < counters.length(); i++) {
+            long value = other.counters.get(i);
+            if (value != 0) {
+                counters.addAndGet(i, value);
+            }
+        }
+    }
+
+    /**
+     * Create an independent copy of this sketch
+     */
+    public CountMinSketch copy() {
+        CountMinSketch copy = new CountMinSketch(depth, width);
+        copy.merge(this);
+        return copy;
+    }
+
+    // Getters
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Pick the counter for a row by remixing the hash with a per-row seed, so
+     * that two keys sharing a counter in one row rarely share one in another
+     */
+    private int index(int row, long hash) {
+        long rowHash = Hashing.mix64(hash + row * 0x9e3779b97f4a7c15L);
+        return row * width + (int) Math.floorMod(rowHash, (long) width);
+    }
+}
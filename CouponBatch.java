@@ -0,0 +1,68 @@
+/**
+ * CouponBatch class describing the discount shared by a batch of coupon codes
+ */
+public class CouponBatch {
+    private String id;
+    private String name;
+    private CouponType couponType;
+    private double value;
+
+    // Enum for different types of coupon discounts
+    public enum CouponType {
+        PERCENTAGE,   // Percentage off the cart total
+        FIXED_AMOUNT  // Fixed amount off the cart total
+    }
+
+    // Constructor (a percentage must be between 0 and 100, an amount must not be negative)
+    public CouponBatch(String id, String name, CouponType couponType, double value) {
+        if (couponType == null || !(value >= 0.0)
+                || (couponType == CouponType.PERCENTAGE && value > 100.0)) {
+            throw new IllegalArgumentException("Invalid coupon value");
+        }
+        this.id = id;
+        this.name = name;
+        this.couponType = couponType;
+        this.value = value;
+    }
+
+    // Getters
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public CouponType getCouponType() {
+        return couponType;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    /**
+     * Get the coupon description for receipt display
+     */
+    public String getDescription() {
+        switch (couponType) {
+            case PERCENTAGE:
+                return value + "%";
+            case FIXED_AMOUNT:
+                return String.format("$%.2f", value);
+            default:
+                return "None";
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CouponBatch{" +
+                "id='" + id + '\'' +
+                ", name='" + name + '\'' +
+                ", couponType=" + couponType +
+                ", value=" + value +
+                '}';
+    }
+}
@@ -0,0 +1,170 @@
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * CouponCodeStore class that keeps coupon codes as 64-bit fingerprints in a
+ * fixed-size open-addressing table.
+ *
+ * Each slot holds a fingerprint and an int with the batch index and a redeemed
+ * bit, about 16 bytes per code instead of a String per code. Slots are claimed
+ * and redeemed with CAS, so loading and redemption are safe under concurrency
+ * and a code can only be redeemed once.
+ */
+public class CouponCodeStore {
+    private static final double MAX_LOAD_FACTOR = 0.75;
+    private static final int REDEEMED = 1;
+
+    private final AtomicLongArray fingerprints;
+    private final AtomicIntegerArray states;
+    private final int mask;
+    private final int maxSize;
+    private final AtomicInteger size;
+
+    // Constructor sized for the expected number of codes
+    public CouponCodeStore(int expectedCodes) {
+        if (expectedCodes <= 0) {
+            throw new IllegalArgumentException("Invalid coupon store capacity");
+        }
+
+        int capacity = 16;
+        while (capacity < expectedCodes / MAX_LOAD_FACTOR) {
+            capacity <<= 1;
+        }
+
+        this.fingerprints = new AtomicLongArray(capacity);
+        this.states = new AtomicIntegerArray(capacity);
+        this.mask = capacity - 1;
+        this.maxSize = (int) (capacity * MAX_LOAD_FACTOR);
+        this.size = new AtomicInteger();
+    }
+
+    /**
+     * Add a code fingerprint for a batch (batch index must be positive).
+     * Returns false if the code is already present or the store is full.
+     */
+    public boolean add(long fingerprint, int batchIndex) {
+        if (batchIndex <= 0) {
+            return false;
+        }
+        if (size.incrementAndGet() > maxSize) {
+            size.decrementAndGet();
+            return false;
+        }
+
+        long key = toKey(fingerprint);
+        int slot = slotFor(key);
+        while (true) {
+            long current = fingerprints.get(slot);
+            if (current == 0 && fingerprints.compareAndSet(slot, 0, key)) {
+                // The state is published after the key; lookups treat 0 as "not loaded yet"
+                states.set(slot, batchIndex << 1);
+                return true;
+            }
+            if (fingerprints.get(slot) == key) {
+                size.decrementAndGet();
+                return false;
+            }
+            if (current != 0) {
+                slot = (slot + 1) & mask;
+            }
+        }
+    }
+
+    /**
+     * Get the batch index of an unredeemed code, or 0 if unknown or already redeemed
+     */
+    public int lookup(long fingerprint) {
+        int slot = find(toKey(fingerprint));
+        if (slot < 0) {
+            return 0;
+        }
+
+        int state = states.get(slot);
+        return (state & REDEEMED) == 0 ? state >>> 1 : 0;
+    }
+
+    /**
+     * Atomically mark a code as redeemed. Returns its batch index, or 0 if the
+     * code is unknown or was already redeemed.
+     */
+    public int redeem(long fingerprint) {
+        int slot = find(toKey(fingerprint));
+        if (slot < 0) {
+            return 0;
+        }
+
+        while (true) {
+            int state = states.get(slot);
+            if (state == 0 || (state & REDEEMED) != 0) {
+                return 0;
+            }
+            if (states.compareAndSet(slot, state, state | REDEEMED)) {
+                return state >>> 1;
+            }
+        }
+    }
+
+    /**
+     * Return a redeemed code to the unredeemed state
+     */
+    public boolean release(long fingerprint) {
+        int slot = find(toKey(fingerprint));
+        if (slot < 0) {
+            return false;
+        }
+
+        while (true) {
+            int state = states.get(slot);
+            if ((state & REDEEMED) == 0) {
+                return false;
+            }
+            if (states.compareAndSet(slot, state, state & ~REDEEMED)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Get the number of codes in the store
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Get the number of slots in the table
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Find the slot holding a key, or -1 if it is not in the table
+     */
+    private int find(long key) {
+        int slot = slotFor(key);
+        for (int probes = 0; probes <= mask; probes++) {
+            long current = fingerprints.get(slot);
+            if (current == key) {
+                return slot;
+            }
+            if (current == 0) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int slotFor(long key) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+
+    /**
+     * Zero marks an empty slot, so it is never used as a key
+     */
+    private static long toKey(long fingerprint) {
+        return fingerprint == 0 ? 1 : fingerprint;
+    }
+}
@@ -0,0 +1,139 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * CouponService class that loads, validates and redeems single-use coupon codes.
+ *
+ * Submitted codes are hashed once. The Bloom filter rejects most typos and
+ * guesses, and only codes that pass it are looked up in the code store.
+ */
+public class CouponService {
+    private final BloomFilter filter;
+    private final CouponCodeStore store;
+    private final List<CouponBatch> batches;
+
+    // Constructor sized for the expected number of codes and Bloom filter false positive rate
+    public CouponService(int expectedCodes, double falsePositiveRate) {
+        this.filter = new BloomFilter(expectedCodes, falsePositiveRate);
+        this.store = new CouponCodeStore(expectedCodes);
+        this.batches = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Load a batch of codes. Returns the number of codes added; duplicates
+     * and codes that do not fit in the store are skipped.
+     */
+    public int loadBatch(CouponBatch batch, Iterable<String> codes) {
+        if (batch == null || codes == null) {
+            return 0;
+        }
+
+        int batchIndex = register(batch);
+        int loaded = 0;
+        for (String code : codes) {
+            if (addCode(code, batchIndex)) {
+                loaded++;
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Load a batch of codes from a file with one code per line
+     */
+    public int loadBatch(CouponBatch batch, Path file) throws IOException {
+        if (batch == null || file == null) {
+            return 0;
+        }
+
+        int batchIndex = register(batch);
+        int loaded = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (addCode(line, batchIndex)) {
+                    loaded++;
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Check whether a code exists and has not been redeemed yet
+     */
+    public boolean isValid(String code) {
+        long hash = hash(code);
+        return hash != 0 && filter.mightContain(hash) && store.lookup(hash) > 0;
+    }
+
+    /**
+     * Redeem a code. Returns its batch, or null if the code is invalid or already used.
+     */
+    public CouponBatch redeem(String code) {
+        long hash = hash(code);
+        if (hash == 0 || !filter.mightContain(hash)) {
+            return null;
+        }
+
+        int batchIndex = store.redeem(hash);
+        return batchIndex > 0 ? batches.get(batchIndex - 1) : null;
+    }
+
+    /**
+     * Make a redeemed code usable again (e.g. when it is removed from a cart)
+     */
+    public boolean release(String code) {
+        long hash = hash(code);
+        return hash != 0 && store.release(hash);
+    }
+
+    /**
+     * Get the number of codes loaded
+     */
+    public int getCodeCount() {
+        return store.size();
+    }
+
+    /**
+     * Add one code to the store and then to the filter, so a code that passes
+     * the filter is always found in the store
+     */
+    private boolean addCode(String code, int batchIndex) {
+        long hash = hash(code);
+        if (hash == 0 || !store.add(hash, batchIndex)) {
+            return false;
+        }
+        filter.add(hash);
+        return true;
+    }
+
+    /**
+     * Get the 1-based index of a batch, registering it if needed
+     */
+    private synchronized int register(CouponBatch batch) {
+        int index = batches.indexOf(batch);
+        if (index < 0) {
+            batches.add(batch);
+            index = batches.size() - 1;
+        }
+        return index + 1;
+    }
+
+    /**
+     * Hash a normalized code to 64 bits. Blank codes hash to 0.
+     */
+    private static long hash(String code) {
+        if (code == null) {
+            return 0;
+        }
+        String normalized = code.trim().toUpperCase(Locale.ROOT);
+        return normalized.isEmpty() ? 0 : Hashing.hash64(normalized);
+    }
+}
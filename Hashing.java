@@ -0,0 +1,34 @@
+/**
+ * Hashing helper providing the 64-bit string hash shared by the coupon store and
+ * the sales analytics sketches
+ */
+public final class Hashing {
+    private Hashing() {
+    }
+
+    /**
+     * Hash a string to 64 bits (FNV-1a followed by a MurmurHash3 finalizer).
+     * Never returns 0, so callers can use 0 as an "empty" marker.
+     */
+    public static long hash64(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h = mix64(h);
+        return h == 0 ? 1 : h;
+    }
+
+    /**
+     * MurmurHash3 64-bit finalizer
+     */
+    public static long mix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
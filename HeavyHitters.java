@@ -0,0 +1,161 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * HeavyHitters class that tracks the most frequent keys in fixed memory.
+ *
+ * Counts go into a Count-Min sketch, and the keys with the highest estimates
+ * are kept in a small array of candidate slots. Slots are only changed by
+ * compare-and-set, so adding and merging never take a lock: a writer that
+ * loses a race rescans the slots and tries again.
+ */
+public class HeavyHitters {
+    private final int capacity;
+    private final CountMinSketch sketch;
+    private final AtomicReferenceArray<Candidate> slots;
+
+    // Constructor with the number of keys to track and the sketch dimensions
+    public HeavyHitters(int capacity, int depth, int width) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.sketch = new CountMinSketch(depth, width);
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * Add a count for a key
+     */
+    public void add(String key, long count) {
+        offer(key, sketch.add(key, count));
+    }
+
+    /**
+     * Estimate the total count added for a key
+     */
+    public long estimate(String key) {
+        return sketch.estimate(key);
+    }
+
+    /**
+     * Get the tracked keys with the highest estimates, most frequent first
+     */
+    public List<String> top(int limit) {
+        List<String> keys = new ArrayList<>(candidateKeys());
+        keys.sort(Comparator.comparing(sketch::estimate).reversed()
+                .thenComparing(Comparator.naturalOrder()));
+        return keys.subList(0, Math.min(Math.max(limit, 0), keys.size()));
+    }
+
+    /**
+     * Merge another tracker with the same dimensions into this one
+     */
+    public void merge(HeavyHitters other) {
+        sketch.merge(other.sketch);
+
+        // Re-rank both candidate sets against the merged sketch
+        Set<String> keys = candidateKeys();
+        keys.addAll(other.candidateKeys());
+        for (String key : keys) {
+            offer(key, sketch.estimate(key));
+        }
+    }
+
+    /**
+     * Create an independent copy of this tracker
+     */
+    public HeavyHitters copy() {
+        HeavyHitters copy = new HeavyHitters(capacity, sketch.getDepth(), sketch.getWidth());
+        copy.merge(this);
+        return copy;
+    }
+
+    /**
+     * Get the keys currently held in the candidate slots
+     */
+    private Set<String> candidateKeys() {
+        Set<String> keys = new HashSet<>();
+        for (int i = 0; i < capacity; i++) {
+            Candidate candidate = slots.get(i);
+            if (candidate != null) {
+                keys.add(candidate.key);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Record a key's latest estimate, replacing the weakest candidate if it is beaten
+     */
+    private void offer(String key, long estimate) {
+        while (true) {
+            // Find the key's slot, or else the weakest slot (an empty one if any)
+            int slot = -1;
+            Candidate found = null;
+            boolean isKey = false;
+            for (int i = 0; i < capacity; i++) {
+                Candidate candidate = slots.get(i);
+                if (candidate != null && candidate.key.equals(key)) {
+                    slot = i;
+                    found = candidate;
+                    isKey = true;
+                    break;
+                }
+                if (slot < 0 || (found != null && (candidate == null || candidate.estimate < found.estimate))) {
+                    slot = i;
+                    found = candidate;
+                }
+            }
+
+            if (isKey) {
+                // Already a candidate: only ever raise its estimate
+                if (found.estimate >= estimate
+                        || slots.compareAndSet(slot, found, new Candidate(key, estimate))) {
+                    return;
+                }
+            } else if (found != null && estimate <= found.estimate) {
+                return;
+            } else if (slots.compareAndSet(slot, found, new Candidate(key, estimate))) {
+                removeDuplicate(key, slot);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Two writers can insert the same new key into different slots at once.
+     * Each checks for the other after inserting, and at least one of them sees
+     * the other, so the copy in the higher slot is always cleared.
+     */
+    private void removeDuplicate(String key, int insertedSlot) {
+        for (int i = 0; i < capacity; i++) {
+            Candidate candidate = slots.get(i);
+            if (i != insertedSlot && candidate != null && candidate.key.equals(key)) {
+                int higher = Math.max(i, insertedSlot);
+                Candidate duplicate = slots.get(higher);
+                if (duplicate != null && duplicate.key.equals(key)) {
+                    slots.compareAndSet(higher, duplicate, null);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Candidate class holding a tracked key and the estimate it was last offered with
+     */
+    private static final class Candidate {
+        private final String key;
+        private final long estimate;
+
+        Candidate(String key, long estimate) {
+            this.key = key;
+            this.estimate = estimate;
+        }
+    }
+}
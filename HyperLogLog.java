@@ -0,0 +1,92 @@
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * HyperLogLog class that estimates the number of distinct values in fixed memory.
+ *
+ * Registers are raised with CAS, so several threads can offer values and merge
+ * sketches without locking.
+ */
+public class HyperLogLog {
+    private final int precision;
+    private final AtomicIntegerArray registers;
+
+    // Constructor with precision p (2^p registers, standard error about 1.04 / sqrt(2^p))
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("Precision must be between 4 and 16");
+        }
+        this.precision = precision;
+        this.registers = new AtomicIntegerArray(1 << precision);
+    }
+
+    /**
+     * Add a string value
+     */
+    public void offer(String value) {
+        if (value != null) {
+            offerHash(Hashing.hash64(value));
+        }
+    }
+
+    /**
+     * Add a precomputed 64-bit hash
+     */
+    public void offerHash(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        int rank = Math.min(Long.numberOfLeadingZeros(hash << precision), 64 - precision) + 1;
+        raise(index, rank);
+    }
+
+    /**
+     * Estimate the number of distinct values offered
+     */
+    public long estimate() {
+        int m = registers.length();
+        double sum = 0.0;
+        int zeros = 0;
+        for (int i = 0; i < m; i++) {
+            int value = registers.get(i);
+            sum += 1.0 / (1L << value);
+            if (value == 0) {
+                zeros++;
+            }
+        }
+
+        double alpha = 0.7213 / (1.0 + 1.079 / m);
+        double estimate = alpha * m * m / sum;
+
+        // Linear counting is more accurate while many registers are still empty
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Merge another sketch of the same precision into this one
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge sketches with different precision");
+        }
+        for (int i = 0; i < registers.length(); i++) {
+            raise(i, other.registers.get(i));
+        }
+    }
+
+    /**
+     * Create an independent copy of this sketch
+     */
+    public HyperLogLog copy() {
+        HyperLogLog copy = new HyperLogLog(precision);
+        copy.merge(this);
+        return copy;
+    }
+
+    private void raise(int index, int value) {
+        int current = registers.get(index);
+        while (value > current && !registers.compareAndSet(index, current, value)) {
+            current = registers.get(index);
+        }
+    }
+}
@@ -1,4 +1,7 @@
 import java.util.Scanner;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Main class with a command-line interface for testing the billing system
@@ -6,12 +9,24 @@ import java.util.Scanner;
 public class Main {
     private static Scanner scanner = new Scanner(System.in);
     private static BillingSystem billingSystem = new BillingSystem();
+    private static final long PROMOTION_TICK_SECONDS = 1;
     
     public static void main(String[] args) {
         System.out.println("Billing System with Discounts Engine\n");
         
         // Initialize the system with sample products
         billingSystem.initializeWithSampleProducts();
+        billingSystem.initializeWithSampleCoupons();
+        
+        // Start and end promotions on time, even while the menu waits for input.
+        // This thread is the only one that touches the promotion scheduler.
+        ScheduledExecutorService promotionTimer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "promotion-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        promotionTimer.scheduleAtFixedRate(billingSystem::advancePromotions,
+                0, PROMOTION_TICK_SECONDS, TimeUnit.SECONDS);
         
         boolean running = true;
         while (running) {
@@ -44,6 +59,24 @@ public class Main {
                     System.out.println("Cart cleared.");
                     break;
                     
+                case 7: // Apply coupon code
+                    applyCoupon();
+                    break;
+                    
+                case 8: // Checkout
+                    checkout();
+                    break;
+                    
+                case 9: // View sales report
+                    System.out.println(billingSystem.getSalesAnalytics().snapshotAllTime().formatReport());
+                    break;
+                    
+                case 10: // Toggle pricing explanation
+                    boolean explain = !billingSystem.getCart().isExplainMode();
+                    billingSystem.setExplainMode(explain);
+                    System.out.println("Pricing explanation " + (explain ? "enabled." : "disabled."));
+                    break;
+                    
                 case 0: // Exit
                     running = false;
                     System.out.println("Thank you for using the Billing System!");
@@ -56,6 +89,7 @@ public class Main {
             System.out.println(); // Add a blank line for readability
         }
         
+        promotionTimer.shutdown();
         scanner.close();
     }
     
@@ -67,6 +101,10 @@ public class Main {
         System.out.println("4. Undo last action");
         System.out.println("5. Generate receipt");
         System.out.println("6. Clear cart");
+        System.out.println("7. Apply coupon code");
+        System.out.println("8. Checkout");
+        System.out.println("9. View sales report");
+        System.out.println("10. Toggle pricing explanation");
         System.out.println("0. Exit");
         System.out.print("Enter your choice: ");
     }
@@ -159,6 +197,36 @@ public class Main {
         }
     }
     
+    private static void applyCoupon() {
+        if (billingSystem.getCart().getCouponCode() != null) {
+            System.out.println("A coupon is already applied: " + billingSystem.getCart().getCouponCode());
+            return;
+        }
+        
+        System.out.print("Enter coupon code: ");
+        String code = scanner.nextLine().trim();
+        
+        if (billingSystem.applyCoupon(code)) {
+            System.out.println("Coupon applied.");
+        } else {
+            System.out.println("Invalid or already used coupon code.");
+        }
+    }
+    
+    private static void checkout() {
+        if (billingSystem.getCart().isEmpty()) {
+            System.out.println("Cart is empty.");
+            return;
+        }
+        
+        System.out.print("Enter customer ID (optional): ");
+        String customerId = scanner.nextLine().trim();
+        
+        String receipt = billingSystem.checkout(customerId.isEmpty() ? null : customerId, Cart.SortCriteria.NAME);
+        System.out.println(receipt);
+        System.out.println("Checkout complete.");
+    }
+    
     private static void generateReceipt() {
         if (billingSystem.getCart().isEmpty()) {
             System.out.println("Cart is empty.");
@@ -0,0 +1,98 @@
+/**
+ * PricedLine class holding one cart item as it was priced.
+ *
+ * The price and the discount in effect are read once, and every amount is
+ * derived from that read, so a promotion starting or ending meanwhile cannot
+ * mix two discounts.
+ */
+public class PricedLine {
+    private final CartItem item;
+    private final double unitPrice;
+    private final int quantity;
+    private final Product.Discount discount;
+    private final double subtotal;
+    private final double discountAmount;
+
+    // Constructor
+    PricedLine(CartItem item, double unitPrice, int quantity, Product.Discount discount,
+               double subtotal, double discountAmount) {
+        this.item = item;
+        this.unitPrice = unitPrice;
+        this.quantity = quantity;
+        this.discount = discount;
+        this.subtotal = subtotal;
+        this.discountAmount = discountAmount;
+    }
+
+    // Getters
+    public CartItem getItem() {
+        return item;
+    }
+
+    public Product getProduct() {
+        return item.getProduct();
+    }
+
+    public double getUnitPrice() {
+        return unitPrice;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public Product.Discount getDiscount() {
+        return discount;
+    }
+
+    public double getSubtotal() {
+        return subtotal;
+    }
+
+    public double getDiscountAmount() {
+        return discountAmount;
+    }
+
+    /**
+     * Get the final price after applying the discount
+     */
+    public double getFinalPrice() {
+        return subtotal - discountAmount;
+    }
+
+    /**
+     * Get the discount description for receipt display
+     */
+    public String getDiscountDescription() {
+        return CartItem.describe(discount);
+    }
+
+    /**
+     * Record the discount rule this line was priced with, its inputs and outcome
+     */
+    public void explainDiscount(PricingTrace trace) {
+        PricingTrace.Entry entry = trace.record(PricingTrace.Scope.LINE, item.getProduct().getId(),
+                discount.getType().name(), discountAmount)
+                .input(PricingTrace.Input.PRICE, unitPrice)
+                .input(PricingTrace.Input.QUANTITY, quantity)
+                .input(PricingTrace.Input.SUBTOTAL, subtotal);
+
+        if (discount.getType() == Product.DiscountType.BOGO) {
+            entry.input(PricingTrace.Input.FREE_UNITS, CartItem.freeUnits(quantity));
+        } else if (discount.getType() == Product.DiscountType.PERCENTAGE) {
+            entry.input(PricingTrace.Input.RATE, discount.getValue());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PricedLine{" +
+                "product=" + item.getProduct().getId() +
+                ", unitPrice=" + unitPrice +
+                ", quantity=" + quantity +
+                ", discount=" + discount +
+                ", subtotal=" + subtotal +
+                ", discountAmount=" + discountAmount +
+                '}';
+    }
+}
@@ -0,0 +1,168 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PricingTrace class recording which discount rules were evaluated for a cart,
+ * with their inputs and outcome, so a disputed total can be explained.
+ *
+ * Inputs are stored as numbers keyed by Input and only turned into text by format().
+ */
+public class PricingTrace {
+    private final List<Entry> entries;
+
+    // Enum for the level a rule applies to
+    public enum Scope {
+        LINE,
+        CART,
+        COUPON
+    }
+
+    // Enum for the inputs a rule can be evaluated on
+    public enum Input {
+        PRICE("price", "%.2f"),
+        QUANTITY("qty", "%.0f"),
+        FREE_UNITS("free", "%.0f"),
+        SUBTOTAL("subtotal", "%.2f"),
+        AFTER_ITEM_DISCOUNTS("afterItemDiscounts", "%.2f"),
+        THRESHOLD("threshold", "%.2f"),
+        RATE("rate", "%s%%"),
+        REMAINING("remaining", "%.2f"),
+        VALUE("value", "%.2f");
+
+        private final String label;
+        private final String pattern;
+
+        Input(String label, String pattern) {
+            this.label = label;
+            this.pattern = pattern;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        private String format(double value) {
+            return label + "=" + String.format(pattern, value);
+        }
+    }
+
+    // Constructor
+    public PricingTrace() {
+        this.entries = new ArrayList<>();
+    }
+
+    /**
+     * Record the evaluation of one rule. Inputs are added to the returned entry.
+     */
+    public Entry record(Scope scope, String subject, String rule, double discount) {
+        Entry entry = new Entry(scope, subject, rule, discount);
+        entries.add(entry);
+        return entry;
+    }
+
+    /**
+     * Get the recorded entries in evaluation order
+     */
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Generate a formatted trace for the receipt
+     */
+    public String format() {
+        StringBuilder trace = new StringBuilder();
+
+        trace.append("--- PRICING TRACE ---\n");
+        for (Entry entry : entries) {
+            trace.append(String.format("%-6s %-12s %-10s -$%-9.2f %-11s",
+                    entry.scope,
+                    entry.subject,
+                    entry.rule,
+                    entry.discount,
+                    entry.isApplied() ? "applied" : "not applied"));
+            for (Map.Entry<Input, Double> input : entry.inputs.entrySet()) {
+                trace.append(' ').append(input.getKey().format(input.getValue()));
+            }
+            trace.append('\n');
+        }
+        trace.append("----------------\n");
+
+        return trace.toString();
+    }
+
+    /**
+     * Entry class holding one evaluated rule
+     */
+    public static class Entry {
+        private final Scope scope;
+        private final String subject;
+        private final String rule;
+        private final double discount;
+        private final Map<Input, Double> inputs;
+
+        // Constructor
+        Entry(Scope scope, String subject, String rule, double discount) {
+            this.scope = scope;
+            this.subject = subject;
+            this.rule = rule;
+            this.discount = discount;
+            this.inputs = new EnumMap<>(Input.class);
+        }
+
+        /**
+         * Add an input value the rule was evaluated on
+         */
+        Entry input(Input input, double value) {
+            inputs.put(input, value);
+            return this;
+        }
+
+        // Getters
+        public Scope getScope() {
+            return scope;
+        }
+
+        public String getSubject() {
+            return subject;
+        }
+
+        public String getRule() {
+            return rule;
+        }
+
+        public double getDiscount() {
+            return discount;
+        }
+
+        public boolean isApplied() {
+            return discount > 0;
+        }
+
+        public boolean hasInput(Input input) {
+            return inputs.containsKey(input);
+        }
+
+        /**
+         * Get an input value, or NaN if the rule did not use it
+         */
+        public double getInput(Input input) {
+            Double value = inputs.get(input);
+            return value == null ? Double.NaN : value;
+        }
+
+        @Override
+        public String toString() {
+            return "Entry{" +
+                    "scope=" + scope +
+                    ", subject='" + subject + '\'' +
+                    ", rule='" + rule + '\'' +
+                    ", discount=" + discount +
+                    ", inputs=" + inputs +
+                    '}';
+        }
+    }
+}
@@ -1,12 +1,16 @@
 /**
- * Product class representing items in the product catalog
+ * Product class representing items in the product catalog.
+ *
+ * The discount is held as an immutable Discount object, so a reader always sees
+ * a matching type and value. A running promotion is kept separately from the
+ * catalog discount and takes precedence over it while it is set.
  */
 public class Product {
     private String id;
     private String name;
     private double price;
-    private DiscountType discountType;
-    private double discountValue;
+    private volatile Discount catalogDiscount;
+    private volatile Discount promotionDiscount;
     
     // Enum for different types of discounts
     public enum DiscountType {
@@ -20,8 +24,7 @@ public class Product {
         this.id = id;
         this.name = name;
         this.price = price;
-        this.discountType = DiscountType.NONE;
-        this.discountValue = 0.0;
+        this.catalogDiscount = Discount.NONE;
     }
     
     // Constructor with discount information
@@ -29,8 +32,7 @@ public class Product {
         this.id = id;
         this.name = name;
         this.price = price;
-        this.discountType = discountType;
-        this.discountValue = discountValue;
+        this.catalogDiscount = new Discount(discountType, discountValue);
     }
     
     // Getters and setters
@@ -50,20 +52,46 @@ public class Product {
         this.price = price;
     }
     
+    /**
+     * Get the catalog discount type. Use getDiscount() for the discount in effect.
+     */
     public DiscountType getDiscountType() {
-        return discountType;
+        return catalogDiscount.getType();
     }
     
     public void setDiscountType(DiscountType discountType) {
-        this.discountType = discountType;
+        this.catalogDiscount = new Discount(discountType, catalogDiscount.getValue());
     }
     
+    /**
+     * Get the catalog discount value. Use getDiscount() for the discount in effect.
+     */
     public double getDiscountValue() {
-        return discountValue;
+        return catalogDiscount.getValue();
     }
     
     public void setDiscountValue(double discountValue) {
-        this.discountValue = discountValue;
+        this.catalogDiscount = new Discount(catalogDiscount.getType(), discountValue);
+    }
+    
+    /**
+     * Get the discount in effect: the running promotion if any, otherwise the catalog discount.
+     * This is the only effective read; pricing should call it once per line.
+     */
+    public Discount getDiscount() {
+        Discount promotion = promotionDiscount;
+        return promotion != null ? promotion : catalogDiscount;
+    }
+    
+    public Discount getCatalogDiscount() {
+        return catalogDiscount;
+    }
+    
+    /**
+     * Set the discount of the running promotion in a single write, or clear it with null
+     */
+    public void setPromotionDiscount(Discount promotionDiscount) {
+        this.promotionDiscount = promotionDiscount;
     }
     
     @Override
@@ -72,8 +100,42 @@ public class Product {
                 "id='" + id + '\'' +
                 ", name='" + name + '\'' +
                 ", price=" + price +
-                ", discountType=" + discountType +
-                ", discountValue=" + discountValue +
+                ", discountType=" + getDiscountType() +
+                ", discountValue=" + getDiscountValue() +
+                ", promotionDiscount=" + promotionDiscount +
                 '}';
     }
+    
+    /**
+     * Discount class holding a discount type and value that never change
+     */
+    public static final class Discount {
+        public static final Discount NONE = new Discount(DiscountType.NONE, 0.0);
+        
+        private final DiscountType type;
+        private final double value;
+        
+        // Constructor
+        public Discount(DiscountType type, double value) {
+            this.type = type;
+            this.value = value;
+        }
+        
+        // Getters
+        public DiscountType getType() {
+            return type;
+        }
+        
+        public double getValue() {
+            return value;
+        }
+        
+        @Override
+        public String toString() {
+            return "Discount{" +
+                    "type=" + type +
+                    ", value=" + value +
+                    '}';
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+import java.time.Instant;
+
+/**
+ * Promotion class representing a time-windowed discount on a product
+ */
+public class Promotion {
+    private String id;
+    private Product product;
+    private Product.Discount discount;
+    private Instant start;
+    private Instant end;
+
+    // Constructor
+    public Promotion(String id, Product product, Product.DiscountType discountType, double discountValue,
+                     Instant start, Instant end) {
+        this.id = id;
+        this.product = product;
+        this.discount = discountType == null ? null : new Product.Discount(discountType, discountValue);
+        this.start = start;
+        this.end = end;
+    }
+
+    // Getters
+    public String getId() {
+        return id;
+    }
+
+    public Product getProduct() {
+        return product;
+    }
+
+    public Product.Discount getDiscount() {
+        return discount;
+    }
+
+    public Product.DiscountType getDiscountType() {
+        return discount == null ? null : discount.getType();
+    }
+
+    public double getDiscountValue() {
+        return discount == null ? 0.0 : discount.getValue();
+    }
+
+    public Instant getStart() {
+        return start;
+    }
+
+    public Instant getEnd() {
+        return end;
+    }
+
+    @Override
+    public String toString() {
+        return "Promotion{" +
+                "id='" + id + '\'' +
+                ", productId='" + product.getId() + '\'' +
+                ", discountType=" + getDiscountType() +
+                ", discountValue=" + getDiscountValue() +
+                ", start=" + start +
+                ", end=" + end +
+                '}';
+    }
+}
@@ -0,0 +1,315 @@
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PromotionScheduler class that activates and expires time-windowed promotions
+ * using a hashed timer wheel.
+ *
+ * Each promotion is stored as two timeouts (start and end) in a wheel of buckets.
+ * Scheduling and cancelling are O(1), and advancing only visits the buckets for
+ * the ticks that have elapsed. Activation swaps the promotion's immutable discount
+ * into the Product with a single write, so cart pricing never looks at the clock
+ * or the schedule and never sees half of a change. The catalog discount is left
+ * alone, so catalog edits made while a promotion runs survive its expiry.
+ *
+ * The scheduler itself is not thread-safe: schedule, cancel and advance must be
+ * called from one thread, while pricing may read products from any thread.
+ */
+public class PromotionScheduler {
+    private static final long DEFAULT_TICK_MILLIS = 1000;
+    private static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private final Clock clock;
+    private final long tickMillis;
+    private final long origin;
+    private final Timeout[] wheel;
+    private final int mask;
+    private long nextTick;
+
+    private Map<String, ScheduledPromotion> scheduled;
+    private Map<String, ProductPromotions> activeByProduct;
+
+    // Constructor
+    public PromotionScheduler() {
+        this(Clock.systemUTC(), DEFAULT_TICK_MILLIS, DEFAULT_WHEEL_SIZE);
+    }
+
+    // Constructor with an injectable clock and wheel configuration
+    public PromotionScheduler(Clock clock, long tickMillis, int wheelSize) {
+        if (clock == null || tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Invalid scheduler configuration");
+        }
+
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+
+        this.clock = clock;
+        this.tickMillis = tickMillis;
+        this.origin = clock.millis();
+        this.wheel = new Timeout[size];
+        this.mask = size - 1;
+        this.nextTick = 0;
+        this.scheduled = new HashMap<>();
+        this.activeByProduct = new HashMap<>();
+    }
+
+    /**
+     * Schedule a promotion. Returns false if the promotion is invalid, already
+     * scheduled, or its window has already ended.
+     */
+    public boolean schedule(Promotion promotion) {
+        if (promotion == null || promotion.getId() == null || promotion.getProduct() == null
+                || promotion.getDiscountType() == null
+                || promotion.getStart() == null || promotion.getEnd() == null) {
+            return false;
+        }
+
+        long startMillis = promotion.getStart().toEpochMilli();
+        long endMillis = promotion.getEnd().toEpochMilli();
+        if (endMillis <= startMillis || endMillis <= clock.millis()
+                || scheduled.containsKey(promotion.getId())) {
+            return false;
+        }
+
+        ScheduledPromotion entry = new ScheduledPromotion(promotion);
+        entry.startTimeout = new Timeout(entry, true, startMillis);
+        entry.endTimeout = new Timeout(entry, false, endMillis);
+        insert(entry.startTimeout);
+        insert(entry.endTimeout);
+        scheduled.put(promotion.getId(), entry);
+        return true;
+    }
+
+    /**
+     * Cancel a scheduled promotion, restoring the product's discount if it is active
+     */
+    public boolean cancel(String promotionId) {
+        ScheduledPromotion entry = scheduled.get(promotionId);
+        if (entry == null) {
+            return false;
+        }
+
+        if (entry.active) {
+            deactivate(entry);
+        }
+        finish(entry);
+        return true;
+    }
+
+    /**
+     * Fire every start and end that is due according to the clock.
+     * Returns the number of promotions that were activated or expired.
+     */
+    public int advance() {
+        long now = clock.millis();
+        long targetTick = Math.floorDiv(now - origin, tickMillis);
+        List<Timeout> due = new ArrayList<>();
+
+        while (nextTick <= targetTick) {
+            int bucket = (int) (nextTick & mask);
+            Timeout timeout = wheel[bucket];
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0) {
+                    unlink(timeout);
+                    due.add(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+            nextTick++;
+        }
+
+        int fired = 0;
+        for (Timeout timeout : due) {
+            if (!timeout.owner.finished) {
+                fired += fire(timeout, now);
+            }
+        }
+        return fired;
+    }
+
+    /**
+     * Check whether a promotion is currently applied to its product
+     */
+    public boolean isActive(String promotionId) {
+        ScheduledPromotion entry = scheduled.get(promotionId);
+        return entry != null && entry.active;
+    }
+
+    /**
+     * Get the number of promotions that are pending or active
+     */
+    public int getScheduledCount() {
+        return scheduled.size();
+    }
+
+    /**
+     * Handle a due timeout. Returns 1 if a promotion changed state, otherwise 0.
+     */
+    private int fire(Timeout timeout, long now) {
+        ScheduledPromotion entry = timeout.owner;
+
+        if (timeout.isStart) {
+            // A window that already closed before we got to it is never applied
+            if (entry.endTimeout.deadline <= now) {
+                finish(entry);
+                return 0;
+            }
+            activate(entry);
+            return 1;
+        }
+
+        if (entry.active) {
+            deactivate(entry);
+            finish(entry);
+            return 1;
+        }
+
+        // The end came up first within the same tick, so the start is dropped
+        finish(entry);
+        return 0;
+    }
+
+    /**
+     * Apply a promotion's discount to its product
+     */
+    private void activate(ScheduledPromotion entry) {
+        Product product = entry.promotion.getProduct();
+        ProductPromotions state = activeByProduct.get(product.getId());
+        if (state == null) {
+            state = new ProductPromotions();
+            activeByProduct.put(product.getId(), state);
+        }
+
+        state.active.add(entry.promotion);
+        entry.active = true;
+        product.setPromotionDiscount(entry.promotion.getDiscount());
+    }
+
+    /**
+     * Remove a promotion's discount, falling back to the most recently activated
+     * overlapping promotion or to the catalog discount
+     */
+    private void deactivate(ScheduledPromotion entry) {
+        Product product = entry.promotion.getProduct();
+        ProductPromotions state = activeByProduct.get(product.getId());
+        entry.active = false;
+        if (state == null) {
+            return;
+        }
+
+        state.active.remove(entry.promotion);
+        if (state.active.isEmpty()) {
+            product.setPromotionDiscount(null);
+            activeByProduct.remove(product.getId());
+        } else {
+            Promotion current = state.active.get(state.active.size() - 1);
+            product.setPromotionDiscount(current.getDiscount());
+        }
+    }
+
+    /**
+     * Drop both timeouts of a promotion and forget it
+     */
+    private void finish(ScheduledPromotion entry) {
+        unlink(entry.startTimeout);
+        unlink(entry.endTimeout);
+        entry.finished = true;
+        scheduled.remove(entry.promotion.getId());
+    }
+
+    /**
+     * Place a timeout in the bucket for its deadline, counting the full turns
+     * of the wheel it has to wait
+     */
+    private void insert(Timeout timeout) {
+        long elapsed = timeout.deadline - origin;
+        long tick = elapsed <= 0 ? 0 : (elapsed + tickMillis - 1) / tickMillis;
+        if (tick < nextTick) {
+            tick = nextTick;
+        }
+
+        timeout.remainingRounds = (tick - nextTick) / wheel.length;
+        timeout.bucket = (int) (tick & mask);
+        timeout.next = wheel[timeout.bucket];
+        if (timeout.next != null) {
+            timeout.next.prev = timeout;
+        }
+        wheel[timeout.bucket] = timeout;
+        timeout.linked = true;
+    }
+
+    /**
+     * Remove a timeout from its bucket in O(1)
+     */
+    private void unlink(Timeout timeout) {
+        if (!timeout.linked) {
+            return;
+        }
+
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            wheel[timeout.bucket] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.linked = false;
+    }
+
+    /**
+     * A start or end event sitting in a wheel bucket
+     */
+    private static class Timeout {
+        private final ScheduledPromotion owner;
+        private final boolean isStart;
+        private final long deadline;
+        private long remainingRounds;
+        private int bucket;
+        private boolean linked;
+        private Timeout prev;
+        private Timeout next;
+
+        Timeout(ScheduledPromotion owner, boolean isStart, long deadline) {
+            this.owner = owner;
+            this.isStart = isStart;
+            this.deadline = deadline;
+        }
+    }
+
+    /**
+     * A promotion together with its two timeouts
+     */
+    private static class ScheduledPromotion {
+        private final Promotion promotion;
+        private Timeout startTimeout;
+        private Timeout endTimeout;
+        private boolean active;
+        private boolean finished;
+
+        ScheduledPromotion(Promotion promotion) {
+            this.promotion = promotion;
+        }
+    }
+
+    /**
+     * The promotions currently applied to a product, in activation order
+     */
+    private static class ProductPromotions {
+        private final List<Promotion> active;
+
+        ProductPromotions() {
+            this.active = new ArrayList<>();
+        }
+    }
+}
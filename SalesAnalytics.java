@@ -0,0 +1,251 @@
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SalesAnalytics class that aggregates completed checkouts as they happen.
+ *
+ * Every checkout is added to an all-time window, the current minute window and
+ * the current hour window. Minute and hour windows live in fixed-size rings
+ * (the last 60 minutes and 24 hours), so memory stays bounded by the catalog
+ * size. Counters are LongAdders and atomic sketches, so checkouts can be
+ * recorded from many threads while snapshots are being taken.
+ */
+public class SalesAnalytics {
+    private static final long MINUTE_MILLIS = 60_000L;
+    private static final long HOUR_MILLIS = 60 * MINUTE_MILLIS;
+    private static final int MINUTE_WINDOWS = 60;
+    private static final int HOUR_WINDOWS = 24;
+    private static final int HLL_PRECISION = 10;
+    private static final int HEAVY_HITTERS = 10;
+    private static final int SKETCH_DEPTH = 4;
+    private static final int SKETCH_WIDTH = 256;
+    private static final int DISCOUNT_TYPES = Product.DiscountType.values().length;
+
+    private final Clock clock;
+    private final SalesWindow allTime;
+    private final AtomicReferenceArray<SalesWindow> minuteWindows;
+    private final AtomicReferenceArray<SalesWindow> hourWindows;
+
+    // Constructor
+    public SalesAnalytics() {
+        this(Clock.systemUTC());
+    }
+
+    // Constructor with an injectable clock
+    public SalesAnalytics(Clock clock) {
+        this.clock = clock;
+        this.allTime = new SalesWindow(clock.millis());
+        this.minuteWindows = new AtomicReferenceArray<>(MINUTE_WINDOWS);
+        this.hourWindows = new AtomicReferenceArray<>(HOUR_WINDOWS);
+    }
+
+    /**
+     * Record a completed checkout. Call this before the cart is cleared.
+     */
+    public void record(String customerId, Cart cart) {
+        if (cart == null) {
+            return;
+        }
+        record(customerId, cart.price());
+    }
+
+    /**
+     * Record a completed checkout from the pricing its receipt was printed from
+     */
+    public void record(String customerId, CartPricing pricing) {
+        if (pricing == null || pricing.isEmpty()) {
+            return;
+        }
+
+        // Convert every line once and feed the same figures to every window
+        List<PricedLine> lines = pricing.getLines();
+        int lineCount = lines.size();
+        long[] revenueCents = new long[lineCount];
+        long[] discountCents = new long[lineCount];
+        for (int i = 0; i < lineCount; i++) {
+            PricedLine line = lines.get(i);
+            revenueCents[i] = toCents(line.getFinalPrice());
+            discountCents[i] = toCents(line.getDiscountAmount());
+        }
+        long cartDiscountCents = toCents(pricing.getCartDiscount());
+        long couponDiscountCents = toCents(pricing.getCouponDiscount());
+        long customerHash = customerId == null ? 0 : Hashing.hash64(customerId);
+
+        long now = clock.millis();
+        SalesWindow[] windows = {
+                allTime,
+                windowFor(minuteWindows, MINUTE_MILLIS, now),
+                windowFor(hourWindows, HOUR_MILLIS, now)
+        };
+        for (SalesWindow window : windows) {
+            if (window == null) {
+                continue;
+            }
+            for (int i = 0; i < lineCount; i++) {
+                PricedLine line = lines.get(i);
+                window.addLine(line.getProduct(), line.getQuantity(), revenueCents[i], discountCents[i],
+                        line.getDiscount().getType().ordinal());
+            }
+            window.addCheckout(customerHash, pricing.getCartDiscount() > 0, cartDiscountCents, couponDiscountCents);
+        }
+    }
+
+    /**
+     * Get a snapshot of everything recorded so far
+     */
+    public SalesSnapshot snapshotAllTime() {
+        return allTime.snapshot(clock.millis());
+    }
+
+    /**
+     * Get a snapshot of the last n minutes, including the current one (at most 60)
+     */
+    public SalesSnapshot snapshotLastMinutes(int minutes) {
+        return snapshotRing(minuteWindows, MINUTE_MILLIS, Math.min(minutes, MINUTE_WINDOWS));
+    }
+
+    /**
+     * Get a snapshot of the last n hours, including the current one (at most 24)
+     */
+    public SalesSnapshot snapshotLastHours(int hours) {
+        return snapshotRing(hourWindows, HOUR_MILLIS, Math.min(hours, HOUR_WINDOWS));
+    }
+
+    /**
+     * Merge the windows of a ring that fall within the last count periods
+     */
+    private SalesSnapshot snapshotRing(AtomicReferenceArray<SalesWindow> ring, long length, int count) {
+        long now = clock.millis();
+        long currentStart = Math.floorDiv(now, length) * length;
+        long oldestStart = currentStart - (Math.max(count, 1) - 1) * length;
+
+        SalesSnapshot result = new SalesWindow(oldestStart).snapshot(currentStart + length);
+        for (int i = 0; i < ring.length(); i++) {
+            SalesWindow window = ring.get(i);
+            if (window != null && window.start >= oldestStart && window.start <= currentStart) {
+                result = result.merge(window.snapshot(window.start + length));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the window of a ring for the given time, replacing the stale window
+     * in its slot. Returns null for a time older than the slot's window.
+     */
+    private static SalesWindow windowFor(AtomicReferenceArray<SalesWindow> ring, long length, long now) {
+        long period = Math.floorDiv(now, length);
+        long start = period * length;
+        int slot = (int) Math.floorMod(period, (long) ring.length());
+
+        while (true) {
+            SalesWindow window = ring.get(slot);
+            if (window != null && window.start == start) {
+                return window;
+            }
+            if (window != null && window.start > start) {
+                return null;
+            }
+            SalesWindow fresh = new SalesWindow(start);
+            if (ring.compareAndSet(slot, window, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private static long toCents(double amount) {
+        return Math.round(amount * 100.0);
+    }
+
+    /**
+     * Concurrent counters for one time window
+     */
+    private static class SalesWindow {
+        private final long start;
+        private final Map<String, ProductCounters> products;
+        private final LongAdder checkouts;
+        private final LongAdder cartDiscountHits;
+        private final LongAdder revenueCents;
+        private final LongAdder cartDiscountCents;
+        private final LongAdder couponDiscountCents;
+        private final HyperLogLog customers;
+        private final HeavyHitters baskets;
+
+        SalesWindow(long start) {
+            this.start = start;
+            this.products = new ConcurrentHashMap<>();
+            this.checkouts = new LongAdder();
+            this.cartDiscountHits = new LongAdder();
+            this.revenueCents = new LongAdder();
+            this.cartDiscountCents = new LongAdder();
+            this.couponDiscountCents = new LongAdder();
+            this.customers = new HyperLogLog(HLL_PRECISION);
+            this.baskets = new HeavyHitters(HEAVY_HITTERS, SKETCH_DEPTH, SKETCH_WIDTH);
+        }
+
+        void addLine(Product product, long units, long revenue, long discount, int discountType) {
+            ProductCounters counters = products.computeIfAbsent(product.getId(),
+                    id -> new ProductCounters(product.getName()));
+            counters.units.add(units);
+            counters.revenueCents.add(revenue);
+            counters.discountCents[discountType].add(discount);
+            revenueCents.add(revenue);
+            baskets.add(product.getId(), 1);
+        }
+
+        void addCheckout(long customerHash, boolean cartDiscountHit, long cartDiscount, long couponDiscount) {
+            checkouts.increment();
+            if (cartDiscountHit) {
+                cartDiscountHits.increment();
+            }
+            revenueCents.add(-cartDiscount - couponDiscount);
+            cartDiscountCents.add(cartDiscount);
+            couponDiscountCents.add(couponDiscount);
+            if (customerHash != 0) {
+                customers.offerHash(customerHash);
+            }
+        }
+
+        SalesSnapshot snapshot(long end) {
+            Map<String, SalesSnapshot.ProductSales> sales = new HashMap<>();
+            for (Map.Entry<String, ProductCounters> entry : products.entrySet()) {
+                ProductCounters counters = entry.getValue();
+                long[] discounts = new long[DISCOUNT_TYPES];
+                for (int i = 0; i < DISCOUNT_TYPES; i++) {
+                    discounts[i] = counters.discountCents[i].sum();
+                }
+                sales.put(entry.getKey(), new SalesSnapshot.ProductSales(entry.getKey(), counters.name,
+                        counters.units.sum(), counters.revenueCents.sum(), discounts));
+            }
+
+            return new SalesSnapshot(start, end, checkouts.sum(), cartDiscountHits.sum(),
+                    revenueCents.sum(), cartDiscountCents.sum(), couponDiscountCents.sum(),
+                    sales, customers.copy(), baskets.copy());
+        }
+    }
+
+    /**
+     * Concurrent counters for one product within a window
+     */
+    private static class ProductCounters {
+        private final String name;
+        private final LongAdder units;
+        private final LongAdder revenueCents;
+        private final LongAdder[] discountCents;
+
+        ProductCounters(String name) {
+            this.name = name;
+            this.units = new LongAdder();
+            this.revenueCents = new LongAdder();
+            this.discountCents = new LongAdder[DISCOUNT_TYPES];
+            for (int i = 0; i < DISCOUNT_TYPES; i++) {
+                discountCents[i] = new LongAdder();
+            }
+        }
+    }
+}
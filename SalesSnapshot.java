@@ -0,0 +1,256 @@
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SalesSnapshot class holding the sales figures of a time window at the moment
+ * it was taken. Snapshots are immutable and can be merged into larger windows.
+ *
+ * Amounts are kept in cents so that merged totals do not drift.
+ */
+public class SalesSnapshot {
+    private static final int DISCOUNT_TYPES = Product.DiscountType.values().length;
+    private static final int TOP_PRODUCTS_IN_REPORT = 5;
+
+    private final long startMillis;
+    private final long endMillis;
+    private final long checkouts;
+    private final long cartDiscountHits;
+    private final long revenueCents;
+    private final long cartDiscountCents;
+    private final long couponDiscountCents;
+    private final Map<String, ProductSales> products;
+    private final HyperLogLog customers;
+    private final HeavyHitters baskets;
+
+    // Constructor (sketches must be copies owned by this snapshot)
+    SalesSnapshot(long startMillis, long endMillis, long checkouts, long cartDiscountHits,
+                  long revenueCents, long cartDiscountCents, long couponDiscountCents,
+                  Map<String, ProductSales> products, HyperLogLog customers, HeavyHitters baskets) {
+        this.startMillis = startMillis;
+        this.endMillis = endMillis;
+        this.checkouts = checkouts;
+        this.cartDiscountHits = cartDiscountHits;
+        this.revenueCents = revenueCents;
+        this.cartDiscountCents = cartDiscountCents;
+        this.couponDiscountCents = couponDiscountCents;
+        this.products = Collections.unmodifiableMap(products);
+        this.customers = customers;
+        this.baskets = baskets;
+    }
+
+    // Getters
+    public Instant getStart() {
+        return Instant.ofEpochMilli(startMillis);
+    }
+
+    public Instant getEnd() {
+        return Instant.ofEpochMilli(endMillis);
+    }
+
+    public long getCheckouts() {
+        return checkouts;
+    }
+
+    public long getCartDiscountHits() {
+        return cartDiscountHits;
+    }
+
+    public double getRevenue() {
+        return revenueCents / 100.0;
+    }
+
+    public double getCartDiscountTotal() {
+        return cartDiscountCents / 100.0;
+    }
+
+    public double getCouponDiscountTotal() {
+        return couponDiscountCents / 100.0;
+    }
+
+    public Map<String, ProductSales> getProductSales() {
+        return products;
+    }
+
+    /**
+     * Get the fraction of checkouts that received the cart-level discount
+     */
+    public double getCartDiscountHitRate() {
+        return checkouts == 0 ? 0.0 : (double) cartDiscountHits / checkouts;
+    }
+
+    /**
+     * Get the total item-level discount given for a discount type
+     */
+    public double getDiscountTotal(Product.DiscountType discountType) {
+        long cents = 0;
+        for (ProductSales sales : products.values()) {
+            cents += sales.discountCents[discountType.ordinal()];
+        }
+        return cents / 100.0;
+    }
+
+    /**
+     * Get the approximate number of distinct customers
+     */
+    public long getDistinctCustomers() {
+        return customers.estimate();
+    }
+
+    /**
+     * Get the approximate number of checkouts that contained a product
+     */
+    public long getEstimatedBasketCount(String productId) {
+        return baskets.estimate(productId);
+    }
+
+    /**
+     * Get the products found in the most checkouts, most frequent first.
+     * Only a bounded number of top products is tracked per window.
+     */
+    public List<String> getHeavyHitters(int limit) {
+        return baskets.top(limit);
+    }
+
+    /**
+     * Combine this snapshot with another one into a snapshot covering both windows
+     */
+    public SalesSnapshot merge(SalesSnapshot other) {
+        Map<String, ProductSales> merged = new HashMap<>(products);
+        for (ProductSales sales : other.products.values()) {
+            ProductSales existing = merged.get(sales.productId);
+            merged.put(sales.productId, existing == null ? sales : existing.merge(sales));
+        }
+
+        HyperLogLog mergedCustomers = customers.copy();
+        mergedCustomers.merge(other.customers);
+        HeavyHitters mergedBaskets = baskets.copy();
+        mergedBaskets.merge(other.baskets);
+
+        return new SalesSnapshot(
+                Math.min(startMillis, other.startMillis),
+                Math.max(endMillis, other.endMillis),
+                checkouts + other.checkouts,
+                cartDiscountHits + other.cartDiscountHits,
+                revenueCents + other.revenueCents,
+                cartDiscountCents + other.cartDiscountCents,
+                couponDiscountCents + other.couponDiscountCents,
+                merged, mergedCustomers, mergedBaskets);
+    }
+
+    /**
+     * Generate a formatted sales report
+     */
+    public String formatReport() {
+        StringBuilder report = new StringBuilder();
+
+        report.append("--- SALES REPORT ---\n");
+        report.append(String.format("Window: %s to %s\n", getStart(), getEnd()));
+        report.append(String.format("Checkouts: %d (cart discount hit rate: %.1f%%)\n",
+                checkouts, getCartDiscountHitRate() * 100.0));
+        report.append(String.format("Distinct customers (approx.): %d\n", getDistinctCustomers()));
+        report.append(String.format("Revenue: $%.2f\n", getRevenue()));
+        for (Product.DiscountType discountType : Product.DiscountType.values()) {
+            if (discountType != Product.DiscountType.NONE) {
+                report.append(String.format("%s discounts: $%.2f\n", discountType, getDiscountTotal(discountType)));
+            }
+        }
+        report.append(String.format("Cart discounts: $%.2f\n", getCartDiscountTotal()));
+        report.append(String.format("Coupon discounts: $%.2f\n", getCouponDiscountTotal()));
+
+        report.append("\n");
+        report.append(String.format("%-8s %-12s %-7s %-12s %-12s\n", "ID", "Item", "Units", "Revenue", "Discount"));
+        report.append("----------------------------------------------------\n");
+        List<String> productIds = new ArrayList<>(products.keySet());
+        Collections.sort(productIds);
+        for (String productId : productIds) {
+            ProductSales sales = products.get(productId);
+            report.append(String.format("%-8s %-12s %-7d $%-11.2f $%-11.2f\n",
+                    productId,
+                    sales.getName().length() <= 12 ? sales.getName() : sales.getName().substring(0, 9) + "...",
+                    sales.getUnits(),
+                    sales.getRevenue(),
+                    sales.getTotalDiscount()));
+        }
+
+        report.append("\n");
+        report.append("Top products by checkouts (approx.):\n");
+        for (String productId : getHeavyHitters(TOP_PRODUCTS_IN_REPORT)) {
+            report.append(String.format("  %-8s ~%d\n", productId, getEstimatedBasketCount(productId)));
+        }
+        report.append("----------------\n");
+
+        return report.toString();
+    }
+
+    /**
+     * ProductSales class holding the sales figures of one product
+     */
+    public static class ProductSales {
+        private final String productId;
+        private final String name;
+        private final long units;
+        private final long revenueCents;
+        private final long[] discountCents;
+
+        // Constructor (discount cents are indexed by DiscountType ordinal)
+        ProductSales(String productId, String name, long units, long revenueCents, long[] discountCents) {
+            this.productId = productId;
+            this.name = name;
+            this.units = units;
+            this.revenueCents = revenueCents;
+            this.discountCents = discountCents;
+        }
+
+        // Getters
+        public String getProductId() {
+            return productId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getUnits() {
+            return units;
+        }
+
+        public double getRevenue() {
+            return revenueCents / 100.0;
+        }
+
+        public double getDiscount(Product.DiscountType discountType) {
+            return discountCents[discountType.ordinal()] / 100.0;
+        }
+
+        public double getTotalDiscount() {
+            long cents = 0;
+            for (long value : discountCents) {
+                cents += value;
+            }
+            return cents / 100.0;
+        }
+
+        private ProductSales merge(ProductSales other) {
+            long[] merged = new long[DISCOUNT_TYPES];
+            for (int i = 0; i < DISCOUNT_TYPES; i++) {
+                merged[i] = discountCents[i] + other.discountCents[i];
+            }
+            return new ProductSales(productId, name, units + other.units,
+                    revenueCents + other.revenueCents, merged);
+        }
+
+        @Override
+        public String toString() {
+            return "ProductSales{" +
+                    "productId='" + productId + '\'' +
+                    ", units=" + units +
+                    ", revenue=" + getRevenue() +
+                    ", discount=" + getTotalDiscount() +
+                    '}';
+        }
+    }
+}